@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.status.code;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of the status code changes a policy would have made in dry-run mode: how many responses were evaluated,
+ * how many would have been changed, and a fixed size ring buffer of the most recent changes.
+ * Recording never locks and does a constant amount of work, so dry-run can stay enabled on high traffic APIs.
+ * A summary is logged at most once every {@link #SUMMARY_INTERVAL_NANOS}, by the first evaluation recorded once it is due.
+ */
+@Slf4j
+final class DryRunRecorder {
+
+    static final int SAMPLE_CAPACITY = 64;
+    static final long SUMMARY_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LongAdder evaluated = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicReferenceArray<Sample> samples = new AtomicReferenceArray<>(SAMPLE_CAPACITY);
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextSummary;
+
+    DryRunRecorder() {
+        this(System::nanoTime);
+    }
+
+    DryRunRecorder(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.nextSummary = new AtomicLong(nanoClock.getAsLong() + SUMMARY_INTERVAL_NANOS);
+    }
+
+    /**
+     * Records the evaluation of a response, and a change when the output status code differs from the input one.
+     * {@code grpcStatus} tells whether the status codes are {@code grpc-status} values rather than HTTP status codes.
+     */
+    void record(String path, boolean grpcStatus, int inputStatusCode, int outputStatusCode) {
+        evaluated.increment();
+        if (outputStatusCode != inputStatusCode) {
+            changed.increment();
+            long position = cursor.getAndIncrement();
+            samples.set((int) (position % SAMPLE_CAPACITY), new Sample(path, grpcStatus, inputStatusCode, outputStatusCode));
+        }
+        logSummaryIfDue();
+    }
+
+    /**
+     * Records the evaluation of a response without any status to map, such as a gRPC response without {@code grpc-status}.
+     */
+    void recordUnchanged() {
+        evaluated.increment();
+        logSummaryIfDue();
+    }
+
+    private void logSummaryIfDue() {
+        long now = nanoClock.getAsLong();
+        long next = nextSummary.get();
+        if (now - next >= 0 && nextSummary.compareAndSet(next, now + SUMMARY_INTERVAL_NANOS)) {
+            log.info(
+                "StatusCodePolicy (dry-run): {} of {} evaluated responses would have been changed, recent changes: {}",
+                changedCount(),
+                evaluatedCount(),
+                samples()
+            );
+        }
+    }
+
+    long evaluatedCount() {
+        return evaluated.sum();
+    }
+
+    long changedCount() {
+        return changed.sum();
+    }
+
+    /**
+     * @return the most recent changes, in no particular order. Samples may be overwritten while they are being read.
+     */
+    List<Sample> samples() {
+        List<Sample> snapshot = new ArrayList<>(SAMPLE_CAPACITY);
+        for (int i = 0; i < SAMPLE_CAPACITY; i++) {
+            Sample sample = samples.get(i);
+            if (sample != null) {
+                snapshot.add(sample);
+            }
+        }
+        return snapshot;
+    }
+
+    record Sample(String path, boolean grpcStatus, int inputStatusCode, int outputStatusCode) {
+        @Override
+        public String toString() {
+            return path + (grpcStatus ? " grpc-status " : " ") + inputStatusCode + " -> " + outputStatusCode;
+        }
+    }
+}
@@ -15,22 +15,44 @@
  */
 package io.gravitee.policy.status.code;
 
+import io.gravitee.gateway.api.http.HttpHeaderNames;
+import io.gravitee.gateway.api.http.HttpHeaders;
 import io.gravitee.gateway.reactive.api.context.GenericExecutionContext;
 import io.gravitee.gateway.reactive.api.context.HttpExecutionContext;
+import io.gravitee.gateway.reactive.api.context.HttpResponse;
 import io.gravitee.gateway.reactive.api.context.MessageExecutionContext;
 import io.gravitee.gateway.reactive.api.policy.Policy;
 import io.gravitee.policy.status.code.configuration.StatusCodePolicyConfiguration;
-import io.gravitee.policy.status.code.configuration.StatusMapping;
 import io.reactivex.rxjava3.core.Completable;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-@RequiredArgsConstructor
 public class StatusCodePolicy implements Policy {
 
+    public static final String ATTR_DRY_RUN_OUTPUT_STATUS = "status-code.dry-run.output-status";
+    public static final String ATTR_DRY_RUN_OUTPUT_GRPC_STATUS = "status-code.dry-run.output-grpc-status";
+
+    private static final String GRPC_CONTENT_TYPE = "application/grpc";
+    private static final String GRPC_STATUS = "grpc-status";
+
     private final StatusCodePolicyConfiguration configuration;
 
+    /**
+     * Only allocated when dry-run is enabled.
+     */
+    private final DryRunRecorder dryRunRecorder;
+
+    /**
+     * Compiled on first execution rather than at construction time, so deploying a large number of APIs does not pay for
+     * mapping compilation up front. Compilation is idempotent, a concurrent first execution simply compiles twice.
+     */
+    private volatile StatusMappingTables mappingTables;
+
+    public StatusCodePolicy(StatusCodePolicyConfiguration configuration) {
+        this.configuration = configuration;
+        this.dryRunRecorder = configuration.isDryRun() ? new DryRunRecorder() : null;
+    }
+
     @Override
     public String id() {
         return "status-code";
@@ -41,21 +63,99 @@ public class StatusCodePolicy implements Policy {
         return doOnResponse(ctx);
     }
 
-    private Completable doOnResponse(GenericExecutionContext ctx) {
+    private Completable doOnResponse(HttpExecutionContext ctx) {
         return Completable.fromRunnable(() -> {
             int originalStatusCode = ctx.response().status();
-            int finalStatusCode = originalStatusCode;
-
-            for (StatusMapping mapping : configuration.getStatusMappings()) {
-                if (mapping.getInputStatusCode() == originalStatusCode) {
-                    finalStatusCode = mapping.getOutputStatusCode();
-                    log.debug("StatusCodePolicy: changing status code from {} to {}", originalStatusCode, finalStatusCode);
-                    // Do not break; last mapping takes precedence
-                }
+            StatusMappingTables tables = mappingTables();
+
+            if (tables.grpcStatus() != null && isGrpc(ctx)) {
+                mapGrpcStatus(ctx, tables.grpcStatus());
+                return;
+            }
+
+            int finalStatusCode = tables.select(ctx).map(originalStatusCode);
+            // The protocol is only checked when the status code would change, most responses never pay for it
+            if (finalStatusCode != originalStatusCode && tables.skipGrpc() && isGrpc(ctx)) {
+                log.debug("StatusCodePolicy: leaving status code {} of gRPC response unchanged", originalStatusCode);
+                finalStatusCode = originalStatusCode;
             }
-            if (finalStatusCode != originalStatusCode) {
+
+            if (dryRunRecorder != null) {
+                dryRun(ctx, false, originalStatusCode, finalStatusCode);
+            } else if (finalStatusCode != originalStatusCode) {
+                log.debug("StatusCodePolicy: changing status code from {} to {}", originalStatusCode, finalStatusCode);
                 ctx.response().status(finalStatusCode);
             }
         });
     }
+
+    private void dryRun(GenericExecutionContext ctx, boolean grpcStatus, int originalStatusCode, int finalStatusCode) {
+        if (finalStatusCode == originalStatusCode) {
+            dryRunRecorder.record(null, grpcStatus, originalStatusCode, finalStatusCode);
+            return;
+        }
+        String path = ctx.request().path();
+        log.debug(
+            "StatusCodePolicy (dry-run): would change {} from {} to {} for {}",
+            grpcStatus ? "gRPC status" : "status code",
+            originalStatusCode,
+            finalStatusCode,
+            path
+        );
+        dryRunRecorder.record(path, grpcStatus, originalStatusCode, finalStatusCode);
+        ctx.setAttribute(grpcStatus ? ATTR_DRY_RUN_OUTPUT_GRPC_STATUS : ATTR_DRY_RUN_OUTPUT_STATUS, finalStatusCode);
+    }
+
+    DryRunRecorder dryRunRecorder() {
+        return dryRunRecorder;
+    }
+
+    private static boolean isGrpc(HttpExecutionContext ctx) {
+        String contentType = ctx.request().headers().get(HttpHeaderNames.CONTENT_TYPE);
+        return contentType != null && contentType.startsWith(GRPC_CONTENT_TYPE);
+    }
+
+    /**
+     * Trailers-only responses, typically errors returned without any message, carry {@code grpc-status} in their headers.
+     * Otherwise, {@code grpc-status} is sent as a trailer once the body has been streamed, so it is mapped when the chunks complete.
+     */
+    private void mapGrpcStatus(HttpExecutionContext ctx, StatusMappingTable grpcStatus) {
+        HttpResponse response = ctx.response();
+        if (response.headers().contains(GRPC_STATUS)) {
+            mapGrpcStatus(ctx, grpcStatus, response.headers());
+        } else {
+            response.chunks(response.chunks().doOnComplete(() -> mapGrpcStatus(ctx, grpcStatus, response.trailers())));
+        }
+    }
+
+    private void mapGrpcStatus(HttpExecutionContext ctx, StatusMappingTable grpcStatus, HttpHeaders headers) {
+        String value = headers.get(GRPC_STATUS);
+        int originalGrpcStatus;
+        try {
+            originalGrpcStatus = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.debug("StatusCodePolicy: ignoring missing or invalid gRPC status {}", value);
+            if (dryRunRecorder != null) {
+                dryRunRecorder.recordUnchanged();
+            }
+            return;
+        }
+
+        int finalGrpcStatus = grpcStatus.map(originalGrpcStatus);
+        if (dryRunRecorder != null) {
+            dryRun(ctx, true, originalGrpcStatus, finalGrpcStatus);
+        } else if (finalGrpcStatus != originalGrpcStatus) {
+            log.debug("StatusCodePolicy: changing gRPC status from {} to {}", originalGrpcStatus, finalGrpcStatus);
+            headers.set(GRPC_STATUS, String.valueOf(finalGrpcStatus));
+        }
+    }
+
+    private StatusMappingTables mappingTables() {
+        StatusMappingTables tables = mappingTables;
+        if (tables == null) {
+            tables = StatusMappingTables.compile(configuration);
+            mappingTables = tables;
+        }
+        return tables;
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.status.code;
+
+import io.gravitee.policy.status.code.configuration.StatusMapping;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup table compiled from a list of {@link StatusMapping}.
+ * Standard status codes are resolved through a direct array access, any other value falls back to a map.
+ * When several mappings share the same input status code, the last one takes precedence.
+ */
+final class StatusMappingTable {
+
+    static final StatusMappingTable EMPTY = new StatusMappingTable(new int[0], Map.of());
+
+    private static final int MAX_INDEXED_STATUS_CODE = 599;
+
+    private final int[] outputs;
+    private final Map<Integer, Integer> others;
+
+    private StatusMappingTable(int[] outputs, Map<Integer, Integer> others) {
+        this.outputs = outputs;
+        this.others = others;
+    }
+
+    static StatusMappingTable compile(List<StatusMapping> mappings) {
+        if (mappings == null || mappings.isEmpty()) {
+            return EMPTY;
+        }
+
+        int maxIndexed = -1;
+        for (StatusMapping mapping : mappings) {
+            if (mapping != null && isIndexed(mapping.getInputStatusCode())) {
+                maxIndexed = Math.max(maxIndexed, mapping.getInputStatusCode());
+            }
+        }
+
+        // Sized to the highest mapped code so that small configurations stay small once thousands of APIs are deployed
+        int[] outputs = new int[maxIndexed + 1];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = i;
+        }
+        Map<Integer, Integer> others = new HashMap<>();
+
+        for (StatusMapping mapping : mappings) {
+            if (mapping == null) {
+                continue;
+            }
+            if (isIndexed(mapping.getInputStatusCode())) {
+                outputs[mapping.getInputStatusCode()] = mapping.getOutputStatusCode();
+            } else {
+                others.put(mapping.getInputStatusCode(), mapping.getOutputStatusCode());
+            }
+        }
+
+        return new StatusMappingTable(outputs, Map.copyOf(others));
+    }
+
+    /**
+     * @return the status code mapped to the given one, or the given status code itself when there is no mapping for it.
+     */
+    int map(int statusCode) {
+        if (statusCode >= 0 && statusCode < outputs.length) {
+            return outputs[statusCode];
+        }
+        if (others.isEmpty()) {
+            return statusCode;
+        }
+        return others.getOrDefault(statusCode, statusCode);
+    }
+
+    private static boolean isIndexed(int statusCode) {
+        return statusCode >= 0 && statusCode <= MAX_INDEXED_STATUS_CODE;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.status.code;
+
+import io.gravitee.gateway.reactive.api.context.ContextAttributes;
+import io.gravitee.gateway.reactive.api.context.GenericExecutionContext;
+import io.gravitee.policy.status.code.configuration.GrpcHandling;
+import io.gravitee.policy.status.code.configuration.StatusCodePolicyConfiguration;
+import io.gravitee.policy.status.code.configuration.StatusMapping;
+import io.gravitee.policy.status.code.configuration.StatusMappingOverride;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The default {@link StatusMappingTable} of a policy along with the tables compiled for each plan and application override.
+ * Override tables already contain the default mappings followed by the override ones, so selecting a table for a consumer
+ * is a single map lookup. An application override takes precedence over a plan override.
+ * Protocol specific handling is also resolved here, so that executing the policy only needs to check the request protocol
+ * when it matters: mappings for {@code 101 Switching Protocols} are dropped when upgrades are skipped, and the gRPC table
+ * only exists when {@code grpc-status} mapping is enabled.
+ */
+final class StatusMappingTables {
+
+    private static final int SWITCHING_PROTOCOLS = 101;
+
+    private final StatusMappingTable defaults;
+    private final Map<String, StatusMappingTable> byPlan;
+    private final Map<String, StatusMappingTable> byApplication;
+    private final GrpcHandling grpcHandling;
+    private final StatusMappingTable grpcStatus;
+
+    private StatusMappingTables(
+        StatusMappingTable defaults,
+        Map<String, StatusMappingTable> byPlan,
+        Map<String, StatusMappingTable> byApplication,
+        GrpcHandling grpcHandling,
+        StatusMappingTable grpcStatus
+    ) {
+        this.defaults = defaults;
+        this.byPlan = byPlan;
+        this.byApplication = byApplication;
+        this.grpcHandling = grpcHandling;
+        this.grpcStatus = grpcStatus;
+    }
+
+    static StatusMappingTables compile(StatusCodePolicyConfiguration configuration) {
+        List<StatusMapping> defaultMappings = applicable(configuration, configuration.getStatusMappings());
+
+        Map<String, List<StatusMapping>> planMappings = new HashMap<>();
+        Map<String, List<StatusMapping>> applicationMappings = new HashMap<>();
+        if (configuration.getOverrides() != null) {
+            for (StatusMappingOverride override : configuration.getOverrides()) {
+                if (override == null || override.getScope() == null || override.getId() == null || override.getStatusMappings() == null) {
+                    continue;
+                }
+                Map<String, List<StatusMapping>> scoped = override.getScope() == StatusMappingOverride.Scope.PLAN
+                    ? planMappings
+                    : applicationMappings;
+                scoped
+                    .computeIfAbsent(override.getId(), id -> new ArrayList<>(defaultMappings))
+                    .addAll(applicable(configuration, override.getStatusMappings()));
+            }
+        }
+
+        GrpcHandling grpcHandling = configuration.getGrpcHandling() == null ? GrpcHandling.APPLY : configuration.getGrpcHandling();
+
+        return new StatusMappingTables(
+            StatusMappingTable.compile(defaultMappings),
+            compile(planMappings),
+            compile(applicationMappings),
+            grpcHandling,
+            grpcHandling == GrpcHandling.MAP_GRPC_STATUS ? StatusMappingTable.compile(configuration.getGrpcStatusMappings()) : null
+        );
+    }
+
+    StatusMappingTable select(GenericExecutionContext ctx) {
+        if (!byApplication.isEmpty()) {
+            StatusMappingTable table = lookup(byApplication, ctx.getAttribute(ContextAttributes.ATTR_APPLICATION));
+            if (table != null) {
+                return table;
+            }
+        }
+        if (!byPlan.isEmpty()) {
+            StatusMappingTable table = lookup(byPlan, ctx.getAttribute(ContextAttributes.ATTR_PLAN));
+            if (table != null) {
+                return table;
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * @return whether the HTTP status code of gRPC responses must be left untouched.
+     */
+    boolean skipGrpc() {
+        return grpcHandling != GrpcHandling.APPLY;
+    }
+
+    /**
+     * @return the table to apply to the {@code grpc-status} of gRPC responses, or {@code null} if it must be left untouched.
+     */
+    StatusMappingTable grpcStatus() {
+        return grpcStatus;
+    }
+
+    private static List<StatusMapping> applicable(StatusCodePolicyConfiguration configuration, List<StatusMapping> mappings) {
+        if (mappings == null) {
+            return List.of();
+        }
+        if (!configuration.isSkipProtocolUpgrade()) {
+            return mappings;
+        }
+        return mappings.stream().filter(mapping -> mapping == null || mapping.getInputStatusCode() != SWITCHING_PROTOCOLS).toList();
+    }
+
+    private static StatusMappingTable lookup(Map<String, StatusMappingTable> tables, Object id) {
+        return id == null ? null : tables.get(id.toString());
+    }
+
+    private static Map<String, StatusMappingTable> compile(Map<String, List<StatusMapping>> mappingsById) {
+        Map<String, StatusMappingTable> tables = new HashMap<>();
+        mappingsById.forEach((id, mappings) -> tables.put(id, StatusMappingTable.compile(mappings)));
+        return Map.copyOf(tables);
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.status.code.configuration;
+
+public enum GrpcHandling {
+    /**
+     * gRPC responses are handled like any other response, their HTTP status code is transformed.
+     */
+    APPLY,
+    /**
+     * gRPC responses are left untouched.
+     */
+    SKIP,
+    /**
+     * The HTTP status code of gRPC responses is left untouched, their {@code grpc-status} is transformed instead.
+     * It is read from the headers of trailers-only responses, and from the trailers once the body has been streamed otherwise.
+     */
+    MAP_GRPC_STATUS,
+}
@@ -27,4 +27,9 @@ import lombok.Setter;
 public class StatusCodePolicyConfiguration implements PolicyConfiguration {
 
     private List<StatusMapping> statusMappings = List.of();
+    private List<StatusMappingOverride> overrides = List.of();
+    private boolean dryRun;
+    private boolean skipProtocolUpgrade;
+    private GrpcHandling grpcHandling = GrpcHandling.APPLY;
+    private List<StatusMapping> grpcStatusMappings = List.of();
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.status.code;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+class DryRunRecorderTest {
+
+    @Test
+    void shouldCountEvaluationsAndChanges() {
+        DryRunRecorder recorder = new DryRunRecorder();
+
+        recorder.record("/orders", false, 200, 200);
+        recorder.record("/orders", false, 204, 200);
+
+        assertThat(recorder.evaluatedCount()).isEqualTo(2);
+        assertThat(recorder.changedCount()).isEqualTo(1);
+        assertThat(recorder.samples()).containsExactly(new DryRunRecorder.Sample("/orders", false, 204, 200));
+    }
+
+    @Test
+    void shouldCountUnchangedEvaluationWithoutSample() {
+        DryRunRecorder recorder = new DryRunRecorder();
+
+        recorder.recordUnchanged();
+
+        assertThat(recorder.evaluatedCount()).isEqualTo(1);
+        assertThat(recorder.changedCount()).isZero();
+        assertThat(recorder.samples()).isEmpty();
+    }
+
+    @Test
+    void shouldKeepOnlyMostRecentSamples() {
+        DryRunRecorder recorder = new DryRunRecorder();
+
+        for (int i = 0; i < DryRunRecorder.SAMPLE_CAPACITY * 2; i++) {
+            recorder.record("/path-" + i, false, 500, 503);
+        }
+
+        assertThat(recorder.changedCount()).isEqualTo(DryRunRecorder.SAMPLE_CAPACITY * 2);
+        assertThat(recorder.samples())
+            .hasSize(DryRunRecorder.SAMPLE_CAPACITY)
+            .extracting(DryRunRecorder.Sample::path)
+            .doesNotContain("/path-0")
+            .contains("/path-" + (DryRunRecorder.SAMPLE_CAPACITY * 2 - 1));
+    }
+
+    @Test
+    void shouldDistinguishGrpcStatusSamples() {
+        DryRunRecorder recorder = new DryRunRecorder();
+
+        recorder.record("/helloworld.Greeter/SayHello", true, 14, 4);
+
+        assertThat(recorder.samples()).singleElement().hasToString("/helloworld.Greeter/SayHello grpc-status 14 -> 4");
+    }
+
+    @Test
+    void shouldLogSummaryOncePerInterval() {
+        AtomicLong clock = new AtomicLong();
+        DryRunRecorder recorder = new DryRunRecorder(clock::get);
+
+        Logger logger = (Logger) LoggerFactory.getLogger(DryRunRecorder.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+
+        try {
+            recorder.record("/orders", false, 204, 200);
+            assertThat(appender.list).isEmpty();
+
+            clock.addAndGet(DryRunRecorder.SUMMARY_INTERVAL_NANOS);
+            recorder.record("/orders", false, 200, 200);
+            recorder.record("/orders", false, 200, 200);
+
+            assertThat(appender.list)
+                .singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .asString()
+                .contains("1 of 2 evaluated responses would have been changed")
+                .contains("/orders 204 -> 200");
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+}
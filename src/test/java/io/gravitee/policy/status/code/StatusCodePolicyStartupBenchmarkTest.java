@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.status.code;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.gateway.api.http.HttpHeaders;
+import io.gravitee.gateway.reactive.api.context.HttpExecutionContext;
+import io.gravitee.gateway.reactive.api.context.Request;
+import io.gravitee.gateway.reactive.api.context.Response;
+import io.gravitee.policy.status.code.configuration.StatusCodePolicyConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures the cost of instantiating a large number of policies, as done by the gateway when deploying APIs.
+ * Disabled by default, run it with {@code mvn test -Dtest=StatusCodePolicyStartupBenchmarkTest -Dbenchmark=true -Dbenchmark.apis=5000}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StatusCodePolicyStartupBenchmarkTest {
+
+    private static final String CONFIGURATION =
+        "{\"statusMappings\":[" +
+        "{\"inputStatusCode\":201,\"outputStatusCode\":200}," +
+        "{\"inputStatusCode\":404,\"outputStatusCode\":200}," +
+        "{\"inputStatusCode\":419,\"outputStatusCode\":401}," +
+        "{\"inputStatusCode\":500,\"outputStatusCode\":503}]}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void shouldReportStartupCostPerPolicyInstance() throws Exception {
+        int apis = Integer.getInteger("benchmark.apis", 5000);
+        List<StatusCodePolicyConfiguration> configurations = new ArrayList<>(apis);
+        List<StatusCodePolicy> policies = new ArrayList<>(apis);
+
+        // Stub-only mocks do not record invocations, so executing thousands of policies does not grow the heap
+        HttpExecutionContext ctx = mock(HttpExecutionContext.class, withSettings().stubOnly());
+        Request request = mock(Request.class, withSettings().stubOnly());
+        Response response = mock(Response.class, withSettings().stubOnly());
+        when(ctx.request()).thenReturn(request);
+        when(ctx.response()).thenReturn(response);
+        when(request.headers()).thenReturn(HttpHeaders.create());
+        when(response.status()).thenReturn(404);
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < apis; i++) {
+            configurations.add(mapper.readValue(CONFIGURATION, StatusCodePolicyConfiguration.class));
+        }
+        long configured = System.nanoTime();
+        long heapConfigured = usedHeap();
+
+        long instantiateStart = System.nanoTime();
+        for (StatusCodePolicyConfiguration configuration : configurations) {
+            policies.add(new StatusCodePolicy(configuration));
+        }
+        long deployed = System.nanoTime();
+        long heapDeployed = usedHeap();
+
+        long compileStart = System.nanoTime();
+        for (StatusCodePolicy policy : policies) {
+            policy.onResponse(ctx).blockingAwait();
+        }
+        long ready = System.nanoTime();
+        long heapCompiled = usedHeap();
+
+        log.info(
+            "Deserialised {} configurations in {} ms (~{} bytes retained per configuration), " +
+            "instantiated the policies in {} ms (~{} bytes retained per policy instance), " +
+            "first execution of all policies took {} ms (~{} bytes retained per compiled mapping table)",
+            configurations.size(),
+            TimeUnit.NANOSECONDS.toMillis(configured - start),
+            (heapConfigured - heapBefore) / apis,
+            TimeUnit.NANOSECONDS.toMillis(deployed - instantiateStart),
+            (heapDeployed - heapConfigured) / apis,
+            TimeUnit.NANOSECONDS.toMillis(ready - compileStart),
+            (heapCompiled - heapDeployed) / apis
+        );
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -22,14 +22,19 @@ import static org.mockito.Mockito.*;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import io.gravitee.gateway.api.buffer.Buffer;
 import io.gravitee.gateway.api.http.HttpHeaders;
+import io.gravitee.gateway.reactive.api.context.ContextAttributes;
 import io.gravitee.gateway.reactive.api.context.HttpExecutionContext;
 import io.gravitee.gateway.reactive.api.context.MessageExecutionContext;
 import io.gravitee.gateway.reactive.api.context.Request;
 import io.gravitee.gateway.reactive.api.context.Response;
+import io.gravitee.policy.status.code.configuration.GrpcHandling;
 import io.gravitee.policy.status.code.configuration.StatusCodePolicyConfiguration;
 import io.gravitee.policy.status.code.configuration.StatusMapping;
+import io.gravitee.policy.status.code.configuration.StatusMappingOverride;
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -38,6 +43,7 @@ import java.util.concurrent.Executors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -62,6 +68,8 @@ class StatusCodePolicyTest {
     void setUp() {
         configuration = new StatusCodePolicyConfiguration();
         policy = new StatusCodePolicy(configuration);
+        lenient().when(ctx.request()).thenReturn(request);
+        lenient().when(request.headers()).thenReturn(HttpHeaders.create());
     }
 
     @Test
@@ -443,4 +451,306 @@ class StatusCodePolicyTest {
                 .anyMatch(event -> event.getFormattedMessage().contains("StatusCodePolicy: changing status code from 200 to 201"))
         );
     }
+
+    @Test
+    void shouldApplyPlanOverrideOnTopOfDefaultMappings() {
+        configuration.setStatusMappings(List.of(mapping(500, 503)));
+        configuration.setOverrides(List.of(override(StatusMappingOverride.Scope.PLAN, "legacy-plan", 204, 200)));
+
+        when(ctx.response()).thenReturn(response);
+        when(ctx.getAttribute(ContextAttributes.ATTR_PLAN)).thenReturn("legacy-plan");
+
+        when(response.status()).thenReturn(204);
+        policy.onResponse(ctx).test().assertComplete();
+        verify(response).status(200);
+
+        reset(response);
+        when(ctx.response()).thenReturn(response);
+
+        when(response.status()).thenReturn(500);
+        policy.onResponse(ctx).test().assertComplete();
+        verify(response).status(503);
+    }
+
+    @Test
+    void shouldApplyOverrideWithoutScopeAsPlanOverride() {
+        StatusMappingOverride override = new StatusMappingOverride();
+        override.setId("legacy-plan");
+        override.setStatusMappings(List.of(mapping(204, 200)));
+        configuration.setOverrides(List.of(override));
+
+        when(ctx.response()).thenReturn(response);
+        when(ctx.getAttribute(ContextAttributes.ATTR_PLAN)).thenReturn("legacy-plan");
+        when(response.status()).thenReturn(204);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response).status(200);
+    }
+
+    @Test
+    void shouldNotApplyPlanOverrideForOtherPlans() {
+        configuration.setOverrides(List.of(override(StatusMappingOverride.Scope.PLAN, "legacy-plan", 204, 200)));
+
+        when(ctx.response()).thenReturn(response);
+        when(ctx.getAttribute(ContextAttributes.ATTR_PLAN)).thenReturn("new-plan");
+        when(response.status()).thenReturn(204);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response, never()).status(anyInt());
+    }
+
+    @Test
+    void shouldPreferApplicationOverrideOverPlanOverride() {
+        configuration.setOverrides(
+            List.of(
+                override(StatusMappingOverride.Scope.PLAN, "legacy-plan", 204, 200),
+                override(StatusMappingOverride.Scope.APPLICATION, "partner-app", 204, 202)
+            )
+        );
+
+        when(ctx.response()).thenReturn(response);
+        when(ctx.getAttribute(ContextAttributes.ATTR_APPLICATION)).thenReturn("partner-app");
+        // Never read when the application override matches, which is what this test checks
+        lenient().when(ctx.getAttribute(ContextAttributes.ATTR_PLAN)).thenReturn("legacy-plan");
+        when(response.status()).thenReturn(204);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response).status(202);
+    }
+
+    @Test
+    void shouldNotChangeStatusInDryRunMode() {
+        configuration.setStatusMappings(List.of(mapping(200, 201)));
+        configuration.setDryRun(true);
+        policy = new StatusCodePolicy(configuration);
+
+        when(ctx.response()).thenReturn(response);
+        when(request.path()).thenReturn("/orders");
+        when(response.status()).thenReturn(200);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response, never()).status(anyInt());
+        verify(ctx).setAttribute(StatusCodePolicy.ATTR_DRY_RUN_OUTPUT_STATUS, 201);
+        assertEquals(1, policy.dryRunRecorder().evaluatedCount());
+        assertEquals(1, policy.dryRunRecorder().changedCount());
+        assertEquals(List.of(new DryRunRecorder.Sample("/orders", false, 200, 201)), policy.dryRunRecorder().samples());
+    }
+
+    @Test
+    void shouldNotSetDryRunAttributeWhenNoMatchingInputStatusCode() {
+        configuration.setStatusMappings(List.of(mapping(404, 200)));
+        configuration.setDryRun(true);
+        policy = new StatusCodePolicy(configuration);
+
+        when(ctx.response()).thenReturn(response);
+        when(response.status()).thenReturn(200);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response, never()).status(anyInt());
+        verify(ctx, never()).setAttribute(anyString(), any());
+        assertEquals(1, policy.dryRunRecorder().evaluatedCount());
+        assertEquals(0, policy.dryRunRecorder().changedCount());
+    }
+
+    @Test
+    void shouldNotChangeSwitchingProtocolsStatusWhenUpgradesAreSkipped() {
+        configuration.setStatusMappings(List.of(mapping(101, 200)));
+        configuration.setSkipProtocolUpgrade(true);
+
+        when(ctx.response()).thenReturn(response);
+        when(response.status()).thenReturn(101);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response, never()).status(anyInt());
+    }
+
+    @Test
+    void shouldChangeSwitchingProtocolsStatusByDefault() {
+        configuration.setStatusMappings(List.of(mapping(101, 200)));
+
+        when(ctx.response()).thenReturn(response);
+        when(response.status()).thenReturn(101);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response).status(200);
+    }
+
+    @Test
+    void shouldNotChangeGrpcResponseStatusWhenSkipped() {
+        configuration.setStatusMappings(List.of(mapping(200, 201)));
+        configuration.setGrpcHandling(GrpcHandling.SKIP);
+
+        when(ctx.response()).thenReturn(response);
+        when(request.headers()).thenReturn(HttpHeaders.create().set("Content-Type", "application/grpc+proto"));
+        when(response.status()).thenReturn(200);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response, never()).status(anyInt());
+    }
+
+    @Test
+    void shouldChangeGrpcResponseStatusByDefault() {
+        configuration.setStatusMappings(List.of(mapping(200, 201)));
+
+        when(ctx.response()).thenReturn(response);
+        // Never read with APPLY, the gRPC request is handled like any other one
+        lenient().when(request.headers()).thenReturn(HttpHeaders.create().set("Content-Type", "application/grpc"));
+        when(response.status()).thenReturn(200);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        verify(response).status(201);
+        verify(ctx, never()).request();
+    }
+
+    @Test
+    void shouldMapGrpcStatusOfTrailersOnlyResponse() {
+        configuration.setGrpcHandling(GrpcHandling.MAP_GRPC_STATUS);
+        configuration.setGrpcStatusMappings(List.of(mapping(5, 0)));
+        HttpHeaders responseHeaders = HttpHeaders.create().set("grpc-status", "5");
+
+        when(ctx.response()).thenReturn(response);
+        when(request.headers()).thenReturn(HttpHeaders.create().set("Content-Type", "application/grpc"));
+        when(response.status()).thenReturn(200);
+        when(response.headers()).thenReturn(responseHeaders);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        assertEquals("0", responseHeaders.get("grpc-status"));
+        verify(response, never()).status(anyInt());
+        verify(response, never()).chunks(any());
+    }
+
+    @Test
+    void shouldRecordGrpcStatusChangeInDryRunMode() {
+        configuration.setGrpcHandling(GrpcHandling.MAP_GRPC_STATUS);
+        configuration.setGrpcStatusMappings(List.of(mapping(5, 0)));
+        configuration.setDryRun(true);
+        policy = new StatusCodePolicy(configuration);
+        HttpHeaders responseHeaders = HttpHeaders.create().set("grpc-status", "5");
+
+        when(ctx.response()).thenReturn(response);
+        when(request.headers()).thenReturn(HttpHeaders.create().set("Content-Type", "application/grpc"));
+        when(request.path()).thenReturn("/helloworld.Greeter/SayHello");
+        when(response.status()).thenReturn(200);
+        when(response.headers()).thenReturn(responseHeaders);
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        assertEquals("5", responseHeaders.get("grpc-status"));
+        verify(response, never()).status(anyInt());
+        verify(ctx).setAttribute(StatusCodePolicy.ATTR_DRY_RUN_OUTPUT_GRPC_STATUS, 0);
+        assertEquals(1, policy.dryRunRecorder().evaluatedCount());
+        assertEquals(1, policy.dryRunRecorder().changedCount());
+        assertEquals(
+            List.of(new DryRunRecorder.Sample("/helloworld.Greeter/SayHello", true, 5, 0)),
+            policy.dryRunRecorder().samples()
+        );
+    }
+
+    @Test
+    void shouldMapGrpcStatusTrailerOnceBodyIsSent() {
+        configuration.setGrpcHandling(GrpcHandling.MAP_GRPC_STATUS);
+        configuration.setGrpcStatusMappings(List.of(mapping(14, 4)));
+        HttpHeaders trailers = HttpHeaders.create().set("grpc-status", "14");
+
+        when(ctx.response()).thenReturn(response);
+        when(request.headers()).thenReturn(HttpHeaders.create().set("Content-Type", "application/grpc"));
+        when(response.status()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.create());
+        when(response.trailers()).thenReturn(trailers);
+        when(response.chunks()).thenReturn(Flowable.just(Buffer.buffer("message")));
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        ArgumentCaptor<Flowable<Buffer>> chunks = ArgumentCaptor.forClass(Flowable.class);
+        verify(response).chunks(chunks.capture());
+        assertEquals("14", trailers.get("grpc-status"));
+
+        chunks.getValue().test().assertComplete();
+
+        assertEquals("4", trailers.get("grpc-status"));
+        verify(response, never()).status(anyInt());
+    }
+
+    @Test
+    void shouldRecordGrpcStatusTrailerInDryRunMode() {
+        configuration.setGrpcHandling(GrpcHandling.MAP_GRPC_STATUS);
+        configuration.setGrpcStatusMappings(List.of(mapping(14, 4)));
+        configuration.setDryRun(true);
+        policy = new StatusCodePolicy(configuration);
+        HttpHeaders trailers = HttpHeaders.create().set("grpc-status", "14");
+
+        when(ctx.response()).thenReturn(response);
+        when(request.headers()).thenReturn(HttpHeaders.create().set("Content-Type", "application/grpc"));
+        when(request.path()).thenReturn("/helloworld.Greeter/SayHello");
+        when(response.status()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.create());
+        when(response.trailers()).thenReturn(trailers);
+        when(response.chunks()).thenReturn(Flowable.just(Buffer.buffer("message")));
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        ArgumentCaptor<Flowable<Buffer>> chunks = ArgumentCaptor.forClass(Flowable.class);
+        verify(response).chunks(chunks.capture());
+        assertEquals(0, policy.dryRunRecorder().evaluatedCount());
+
+        chunks.getValue().test().assertComplete();
+
+        assertEquals("14", trailers.get("grpc-status"));
+        verify(ctx).setAttribute(StatusCodePolicy.ATTR_DRY_RUN_OUTPUT_GRPC_STATUS, 4);
+        assertEquals(1, policy.dryRunRecorder().evaluatedCount());
+        assertEquals(
+            List.of(new DryRunRecorder.Sample("/helloworld.Greeter/SayHello", true, 14, 4)),
+            policy.dryRunRecorder().samples()
+        );
+    }
+
+    @Test
+    void shouldRecordGrpcResponseWithoutStatusAsUnchangedInDryRunMode() {
+        configuration.setGrpcHandling(GrpcHandling.MAP_GRPC_STATUS);
+        configuration.setGrpcStatusMappings(List.of(mapping(14, 4)));
+        configuration.setDryRun(true);
+        policy = new StatusCodePolicy(configuration);
+
+        when(ctx.response()).thenReturn(response);
+        when(request.headers()).thenReturn(HttpHeaders.create().set("Content-Type", "application/grpc"));
+        when(response.status()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.create());
+        when(response.trailers()).thenReturn(HttpHeaders.create());
+        when(response.chunks()).thenReturn(Flowable.empty());
+
+        policy.onResponse(ctx).test().assertComplete();
+
+        ArgumentCaptor<Flowable<Buffer>> chunks = ArgumentCaptor.forClass(Flowable.class);
+        verify(response).chunks(chunks.capture());
+        chunks.getValue().test().assertComplete();
+
+        verify(ctx, never()).setAttribute(eq(StatusCodePolicy.ATTR_DRY_RUN_OUTPUT_GRPC_STATUS), any());
+        assertEquals(1, policy.dryRunRecorder().evaluatedCount());
+        assertEquals(0, policy.dryRunRecorder().changedCount());
+    }
+
+    private static StatusMapping mapping(int input, int output) {
+        StatusMapping mapping = new StatusMapping();
+        mapping.setInputStatusCode(input);
+        mapping.setOutputStatusCode(output);
+        return mapping;
+    }
+
+    private static StatusMappingOverride override(StatusMappingOverride.Scope scope, String id, int input, int output) {
+        StatusMappingOverride override = new StatusMappingOverride();
+        override.setScope(scope);
+        override.setId(id);
+        override.setStatusMappings(List.of(mapping(input, output)));
+        return override;
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.policy.status.code;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.policy.status.code.configuration.StatusMapping;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StatusMappingTableTest {
+
+    @Test
+    void shouldReturnEmptyTableWhenNoMappings() {
+        assertThat(StatusMappingTable.compile(null)).isSameAs(StatusMappingTable.EMPTY);
+        assertThat(StatusMappingTable.compile(List.of())).isSameAs(StatusMappingTable.EMPTY);
+        assertThat(StatusMappingTable.EMPTY.map(200)).isEqualTo(200);
+    }
+
+    @Test
+    void shouldMapStandardAndNonStandardStatusCodes() {
+        StatusMappingTable table = StatusMappingTable.compile(List.of(mapping(404, 200), mapping(620, 500), mapping(-100, 200)));
+
+        assertThat(table.map(404)).isEqualTo(200);
+        assertThat(table.map(620)).isEqualTo(500);
+        assertThat(table.map(-100)).isEqualTo(200);
+    }
+
+    @Test
+    void shouldLeaveUnmappedStatusCodesUnchanged() {
+        StatusMappingTable table = StatusMappingTable.compile(List.of(mapping(404, 200)));
+
+        assertThat(table.map(200)).isEqualTo(200);
+        assertThat(table.map(500)).isEqualTo(500);
+        assertThat(table.map(700)).isEqualTo(700);
+    }
+
+    @Test
+    void shouldApplyLastMappingForSameInputStatusCode() {
+        StatusMappingTable table = StatusMappingTable.compile(
+            List.of(mapping(200, 201), mapping(200, 202), mapping(700, 500), mapping(700, 503))
+        );
+
+        assertThat(table.map(200)).isEqualTo(202);
+        assertThat(table.map(700)).isEqualTo(503);
+    }
+
+    @Test
+    void shouldIgnoreNullMappings() {
+        StatusMappingTable table = StatusMappingTable.compile(Arrays.asList(null, mapping(500, 503)));
+
+        assertThat(table.map(500)).isEqualTo(503);
+    }
+
+    private static StatusMapping mapping(int input, int output) {
+        StatusMapping mapping = new StatusMapping();
+        mapping.setInputStatusCode(input);
+        mapping.setOutputStatusCode(output);
+        return mapping;
+    }
+}